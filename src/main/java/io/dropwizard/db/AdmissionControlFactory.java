@@ -0,0 +1,139 @@
+package io.dropwizard.db;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+
+/**
+ * Configures the Jersey admission control that rejects requests with
+ * {@code 503 Service Unavailable} while the connection pool is saturated,
+ * before the resource starts any work. Shedding only happens once at least one
+ * threshold is set.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AdmissionControlFactory {
+    @Min(0)
+    private Integer maxThreadsAwaitingConnection;
+
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration maxAcquireTime;
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double acquireTimePercentile = 0.99;
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration acquireTimeWindow = Duration.seconds(10);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration acquireTimeRefreshInterval = Duration.seconds(1);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration retryAfter = Duration.seconds(1);
+
+    private boolean annotatedOnly = false;
+
+    @JsonProperty
+    public Optional<Integer> getMaxThreadsAwaitingConnection() {
+        return Optional.ofNullable(this.maxThreadsAwaitingConnection);
+    }
+
+    @JsonProperty
+    public void setMaxThreadsAwaitingConnection(final Integer maxThreadsAwaitingConnection) {
+        this.maxThreadsAwaitingConnection = maxThreadsAwaitingConnection;
+    }
+
+    @JsonProperty
+    public Optional<Duration> getMaxAcquireTime() {
+        return Optional.ofNullable(this.maxAcquireTime);
+    }
+
+    @JsonProperty
+    public void setMaxAcquireTime(final Duration maxAcquireTime) {
+        this.maxAcquireTime = maxAcquireTime;
+    }
+
+    @JsonProperty
+    public double getAcquireTimePercentile() {
+        return this.acquireTimePercentile;
+    }
+
+    @JsonProperty
+    public void setAcquireTimePercentile(final double acquireTimePercentile) {
+        this.acquireTimePercentile = acquireTimePercentile;
+    }
+
+    @JsonProperty
+    public Duration getAcquireTimeWindow() {
+        return this.acquireTimeWindow;
+    }
+
+    @JsonProperty
+    public void setAcquireTimeWindow(final Duration acquireTimeWindow) {
+        this.acquireTimeWindow = acquireTimeWindow;
+    }
+
+    @JsonProperty
+    public Duration getAcquireTimeRefreshInterval() {
+        return this.acquireTimeRefreshInterval;
+    }
+
+    @JsonProperty
+    public void setAcquireTimeRefreshInterval(final Duration acquireTimeRefreshInterval) {
+        this.acquireTimeRefreshInterval = acquireTimeRefreshInterval;
+    }
+
+    @JsonProperty
+    public Duration getRetryAfter() {
+        return this.retryAfter;
+    }
+
+    @JsonProperty
+    public void setRetryAfter(final Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    @JsonProperty
+    public boolean isAnnotatedOnly() {
+        return this.annotatedOnly;
+    }
+
+    @JsonProperty
+    public void setAnnotatedOnly(final boolean annotatedOnly) {
+        this.annotatedOnly = annotatedOnly;
+    }
+
+    /**
+     * Builds the Jersey feature guarding the given pool. The pool state is read
+     * from the metrics registered for it, so the data source must have been
+     * built with the same metric registry, by the {@link DataSourceFactory}
+     * holding this configuration: the acquire times of the last
+     * {@code acquireTimeWindow} are only recorded when {@code maxAcquireTime}
+     * is set there.
+     *
+     * @param metricRegistry
+     *            the metric registry holding the pool metrics, also used to
+     *            register the shed meter.
+     * @param poolName
+     *            the name given to {@link DataSourceFactory#build} (for
+     *            {@code HibernateBundle} it is {@code hibernate}).
+     * @return the feature to register with {@code environment.jersey()}.
+     */
+    public PoolAdmissionFeature build(final MetricRegistry metricRegistry, final String poolName) {
+        return new PoolAdmissionFeature(new PoolAdmissionFilter(this, metricRegistry, poolName), this.annotatedOnly);
+    }
+}
@@ -0,0 +1,22 @@
+package io.dropwizard.db;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a resource class or method in or out of the connection pool admission
+ * control installed by {@link PoolAdmissionFeature}. Method annotations take
+ * precedence over class annotations.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface AdmissionControlled {
+    /**
+     * @return {@code false} to never shed requests for the annotated resource.
+     */
+    boolean value() default true;
+}
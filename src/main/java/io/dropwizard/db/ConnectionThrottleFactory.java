@@ -0,0 +1,169 @@
+package io.dropwizard.db;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.util.concurrent.RateLimiter;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import io.dropwizard.validation.ValidationMethod;
+
+/**
+ * Configures the rate at which the pool opens physical connections, so that a
+ * fleet refilling its pools after a failover or deploy doesn't stampede the
+ * database. Throttling is disabled unless {@code permitsPerSecond} or
+ * {@code group} is set.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ConnectionThrottleFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionThrottleFactory.class);
+
+    private static final ConcurrentMap<String, RateLimiter> GROUP_LIMITERS = new ConcurrentHashMap<>();
+
+    @DecimalMin(value = "0.0", inclusive = false)
+    private Double permitsPerSecond;
+
+    private String group;
+
+    @DecimalMin(value = "0.0", inclusive = false)
+    private Double groupPermitsPerSecond;
+
+    @NotNull
+    @MinDuration(value = 0, unit = TimeUnit.MILLISECONDS)
+    private Duration maxJitter = Duration.milliseconds(100);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration initialBackoff = Duration.milliseconds(100);
+
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration maxBackoff = Duration.seconds(10);
+
+    @JsonProperty
+    public Optional<Double> getPermitsPerSecond() {
+        return Optional.ofNullable(this.permitsPerSecond);
+    }
+
+    @JsonProperty
+    public void setPermitsPerSecond(final Double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    @JsonProperty
+    public Optional<String> getGroup() {
+        return Optional.ofNullable(this.group);
+    }
+
+    @JsonProperty
+    public void setGroup(final String group) {
+        this.group = group;
+    }
+
+    @JsonProperty
+    public Optional<Double> getGroupPermitsPerSecond() {
+        return Optional.ofNullable(this.groupPermitsPerSecond);
+    }
+
+    @JsonProperty
+    public void setGroupPermitsPerSecond(final Double groupPermitsPerSecond) {
+        this.groupPermitsPerSecond = groupPermitsPerSecond;
+    }
+
+    @JsonProperty
+    public Duration getMaxJitter() {
+        return this.maxJitter;
+    }
+
+    @JsonProperty
+    public void setMaxJitter(final Duration maxJitter) {
+        this.maxJitter = maxJitter;
+    }
+
+    @JsonProperty
+    public Duration getInitialBackoff() {
+        return this.initialBackoff;
+    }
+
+    @JsonProperty
+    public void setInitialBackoff(final Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    @JsonProperty
+    public Duration getMaxBackoff() {
+        return this.maxBackoff;
+    }
+
+    @JsonProperty
+    public void setMaxBackoff(final Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    @JsonIgnore
+    public boolean isEnabled() {
+        return this.permitsPerSecond != null || this.group != null;
+    }
+
+    @JsonIgnore
+    @ValidationMethod(message = ".groupPermitsPerSecond is required when group is set")
+    public boolean isGroupRateSet() {
+        return this.group == null || this.groupPermitsPerSecond != null;
+    }
+
+    @JsonIgnore
+    @ValidationMethod(message = ".initialBackoff must be less than or equal to maxBackoff")
+    public boolean isInitialBackoffLessThanMaxBackoff() {
+        return this.initialBackoff.toNanoseconds() <= this.maxBackoff.toNanoseconds();
+    }
+
+    /**
+     * Wraps the data source the pool opens its physical connections with.
+     *
+     * @param dataSource
+     *            the data source opening the physical connections.
+     * @param metricRegistry
+     *            the metric registry used to register the throttling metrics.
+     * @param poolName
+     *            the pool name, used as metric prefix.
+     * @return the throttled data source.
+     */
+    ThrottledDataSource build(final DataSource dataSource, final MetricRegistry metricRegistry,
+            final String poolName) {
+        if (this.group != null && this.groupPermitsPerSecond == null) {
+            throw new IllegalStateException("groupPermitsPerSecond is required when group is set");
+        }
+        final RateLimiter limiter = this.permitsPerSecond == null ? null : RateLimiter.create(this.permitsPerSecond);
+        final RateLimiter groupLimiter = this.group == null ? null : getGroupLimiter(this.group,
+                this.groupPermitsPerSecond);
+        return new ThrottledDataSource(dataSource, limiter, groupLimiter, this.maxJitter.toNanoseconds(),
+                this.initialBackoff.toNanoseconds(), this.maxBackoff.toNanoseconds(), metricRegistry, poolName);
+    }
+
+    /**
+     * Returns the limiter shared by all pools of the process in the same
+     * group. The first pool to use a group defines its rate.
+     */
+    private static RateLimiter getGroupLimiter(final String group, final double permitsPerSecond) {
+        final RateLimiter limiter = GROUP_LIMITERS.computeIfAbsent(group, name -> RateLimiter.create(permitsPerSecond));
+        if (limiter.getRate() != permitsPerSecond) {
+            LOGGER.warn("Connection throttle group {} already uses {} permits per second, ignoring {}", group,
+                    limiter.getRate(), permitsPerSecond);
+        }
+        return limiter;
+    }
+}
@@ -1,5 +1,6 @@
 package io.dropwizard.db;
 
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -7,15 +8,21 @@ import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.Maps;
 import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.util.DriverDataSource;
 
 import io.dropwizard.util.Duration;
 import io.dropwizard.validation.MinDuration;
@@ -23,12 +30,23 @@ import io.dropwizard.validation.ValidationMethod;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class DataSourceFactory implements PooledDataSourceFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceFactory.class);
+
     private static final String DEFAULT_VALIDATION_QUERY = "/* Health Check */ SELECT 1";
 
     public enum TransactionIsolation {
         TRANSACTION_NONE, TRANSACTION_READ_UNCOMMITTED, TRANSACTION_READ_COMMITTED, TRANSACTION_REPEATABLE_READ, TRANSACTION_SERIALIZABLE;
     }
 
+    /**
+     * Driver specific properties applied underneath the user supplied
+     * {@code properties}. Only MySQL, MariaDB and PostgreSQL drivers have
+     * presets.
+     */
+    public enum PropertiesPreset {
+        NONE, THROUGHPUT, LATENCY;
+    }
+
     @NotNull
     private String driverClass = null;
 
@@ -50,6 +68,9 @@ public class DataSourceFactory implements PooledDataSourceFactory {
     @NotNull
     private Map<String, String> properties = Maps.newLinkedHashMap();
 
+    @NotNull
+    private PropertiesPreset propertiesPreset = PropertiesPreset.NONE;
+
     private String defaultCatalog;
 
     private Optional<TransactionIsolation> defaultTransactionIsolation = Optional.empty();
@@ -119,10 +140,25 @@ public class DataSourceFactory implements PooledDataSourceFactory {
 
     private boolean removeAbandoned = false;
 
+    @Min(1)
+    private Integer defaultFetchSize;
+
+    private boolean forwardOnlyResultSets = false;
+
+    private boolean physicalConnectionEvents = false;
+
     @NotNull
     @MinDuration(1)
     private Duration removeAbandonedTimeout = Duration.seconds(60L);
 
+    @Valid
+    @NotNull
+    private AdmissionControlFactory admissionControl = new AdmissionControlFactory();
+
+    @Valid
+    @NotNull
+    private ConnectionThrottleFactory connectionThrottle = new ConnectionThrottleFactory();
+
     @JsonProperty
     public Optional<Duration> getConnectionTimeout() {
         return Optional.ofNullable(this.connectionTimeout);
@@ -227,6 +263,29 @@ public class DataSourceFactory implements PooledDataSourceFactory {
         this.properties = properties;
     }
 
+    @JsonProperty
+    public PropertiesPreset getPropertiesPreset() {
+        return this.propertiesPreset;
+    }
+
+    @JsonProperty
+    public void setPropertiesPreset(final PropertiesPreset propertiesPreset) {
+        this.propertiesPreset = Objects.requireNonNull(propertiesPreset);
+    }
+
+    /**
+     * @return the driver properties given to the connections: the preset
+     *         matching the configured driver, overridden by the user supplied
+     *         {@code properties}.
+     */
+    @JsonIgnore
+    public Map<String, String> getEffectiveProperties() {
+        final Map<String, String> effectiveProperties = Maps.newLinkedHashMap(DriverPropertyPresets
+                .get(DriverPropertyPresets.detect(this.driverClass, this.url), this.propertiesPreset));
+        effectiveProperties.putAll(this.properties);
+        return effectiveProperties;
+    }
+
     @JsonProperty
     public Duration getMaxWaitForConnection() {
         return this.maxWaitForConnection;
@@ -516,6 +575,56 @@ public class DataSourceFactory implements PooledDataSourceFactory {
         this.removeAbandonedTimeout = Objects.requireNonNull(removeAbandonedTimeout);
     }
 
+    @JsonProperty
+    public Optional<Integer> getDefaultFetchSize() {
+        return Optional.ofNullable(this.defaultFetchSize);
+    }
+
+    @JsonProperty
+    public void setDefaultFetchSize(final Integer defaultFetchSize) {
+        this.defaultFetchSize = defaultFetchSize;
+    }
+
+    @JsonProperty
+    public boolean isForwardOnlyResultSets() {
+        return this.forwardOnlyResultSets;
+    }
+
+    @JsonProperty
+    public void setForwardOnlyResultSets(final boolean forwardOnlyResultSets) {
+        this.forwardOnlyResultSets = forwardOnlyResultSets;
+    }
+
+    @JsonProperty
+    public boolean isPhysicalConnectionEvents() {
+        return this.physicalConnectionEvents;
+    }
+
+    @JsonProperty
+    public void setPhysicalConnectionEvents(final boolean physicalConnectionEvents) {
+        this.physicalConnectionEvents = physicalConnectionEvents;
+    }
+
+    @JsonProperty
+    public AdmissionControlFactory getAdmissionControl() {
+        return this.admissionControl;
+    }
+
+    @JsonProperty
+    public void setAdmissionControl(final AdmissionControlFactory admissionControl) {
+        this.admissionControl = Objects.requireNonNull(admissionControl);
+    }
+
+    @JsonProperty
+    public ConnectionThrottleFactory getConnectionThrottle() {
+        return this.connectionThrottle;
+    }
+
+    @JsonProperty
+    public void setConnectionThrottle(final ConnectionThrottleFactory connectionThrottle) {
+        this.connectionThrottle = Objects.requireNonNull(connectionThrottle);
+    }
+
     @Override
     public void asSingleConnectionPool() {
         this.minSize = 1;
@@ -524,10 +633,15 @@ public class DataSourceFactory implements PooledDataSourceFactory {
 
     @Override
     public ManagedDataSource build(final MetricRegistry metricRegistry, final String name) {
+        final Map<String, String> effectiveProperties = this.getEffectiveProperties();
         final Properties properties = new Properties();
-        for (final Map.Entry<String, String> property : this.properties.entrySet()) {
+        final Map<String, String> loggedProperties = Maps.newLinkedHashMap();
+        for (final Map.Entry<String, String> property : effectiveProperties.entrySet()) {
             properties.setProperty(property.getKey(), property.getValue());
+            loggedProperties.put(property.getKey(),
+                    property.getKey().toLowerCase(Locale.ROOT).contains("password") ? "******" : property.getValue());
         }
+        LOGGER.info("{} - Data source properties (preset {}): {}", name, this.propertiesPreset, loggedProperties);
 
         final HikariConfig config = new HikariConfig();
         config.setDataSourceProperties(properties);
@@ -550,6 +664,20 @@ public class DataSourceFactory implements PooledDataSourceFactory {
         config.setUsername(this.user);
         config.setPassword(this.user != null && this.password == null ? "" : this.password);
         config.setConnectionTestQuery(this.validationQuery.orElse(DEFAULT_VALIDATION_QUERY));
+        final boolean recordPhysicalConnections = this.physicalConnectionEvents
+                && FlightRecorderEvents.isAvailable();
+        if (recordPhysicalConnections || this.connectionThrottle.isEnabled()) {
+            DataSource physicalDataSource = new DriverDataSource(this.url, this.driverClass, properties,
+                    config.getUsername(), config.getPassword());
+            if (recordPhysicalConnections) {
+                physicalDataSource = new FlightRecorderDataSource(physicalDataSource, name,
+                        config.getConnectionTestQuery());
+            }
+            if (this.connectionThrottle.isEnabled()) {
+                physicalDataSource = this.connectionThrottle.build(physicalDataSource, metricRegistry, name);
+            }
+            config.setDataSource(physicalDataSource);
+        }
         this.getValidationQueryTimeout().ifPresent(timeout -> config.setValidationTimeout(timeout.toMilliseconds()));
         if (this.defaultTransactionIsolation.isPresent()) {
             config.setTransactionIsolation(this.defaultTransactionIsolation.get().toString());
@@ -559,7 +687,12 @@ public class DataSourceFactory implements PooledDataSourceFactory {
         this.getInitializationFailTimeout()
                 .ifPresent(timeout -> config.setInitializationFailTimeout(timeout.toMilliseconds()));
         this.getValidationTimeout().ifPresent(timeout -> config.setValidationTimeout(timeout.toMilliseconds()));
-        return new ManagedPooledDataSource(config, metricRegistry);
+        final ManagedPooledDataSource dataSource = new ManagedPooledDataSource(config, metricRegistry,
+                this.admissionControl.getMaxAcquireTime().isPresent() ? this.admissionControl.getAcquireTimeWindow()
+                        : null);
+        dataSource.setDefaultFetchSize(this.defaultFetchSize);
+        dataSource.setForwardOnlyResultSets(this.forwardOnlyResultSets);
+        return dataSource;
     }
 
     @Override
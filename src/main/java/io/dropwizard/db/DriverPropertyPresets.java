@@ -0,0 +1,121 @@
+package io.dropwizard.db;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.dropwizard.db.DataSourceFactory.PropertiesPreset;
+
+/**
+ * Tuned JDBC driver properties for the drivers that need them to perform well.
+ * The driver is detected from the driver class name, falling back to the JDBC
+ * URL prefix.
+ */
+final class DriverPropertyPresets {
+    enum Driver {
+        MYSQL("mysql",
+                ImmutableMap.<String, String> builder()
+                        .put("cachePrepStmts", "true")
+                        .put("prepStmtCacheSize", "250")
+                        .put("prepStmtCacheSqlLimit", "2048")
+                        .put("useServerPrepStmts", "true")
+                        .put("useLocalSessionState", "true")
+                        .put("rewriteBatchedStatements", "true")
+                        .put("cacheResultSetMetadata", "true")
+                        .put("cacheServerConfiguration", "true")
+                        .put("elideSetAutoCommits", "true")
+                        .put("maintainTimeStats", "false")
+                        .build(),
+                ImmutableMap.<String, String> builder()
+                        .put("cachePrepStmts", "true")
+                        .put("prepStmtCacheSize", "250")
+                        .put("prepStmtCacheSqlLimit", "2048")
+                        .put("useServerPrepStmts", "true")
+                        .put("useLocalSessionState", "true")
+                        .put("cacheServerConfiguration", "true")
+                        .put("elideSetAutoCommits", "true")
+                        .put("maintainTimeStats", "false")
+                        .put("tcpNoDelay", "true")
+                        .build()),
+        MARIADB("mariadb",
+                ImmutableMap.<String, String> builder()
+                        .put("cachePrepStmts", "true")
+                        .put("prepStmtCacheSize", "250")
+                        .put("useServerPrepStmts", "true")
+                        .put("useBulkStmts", "true")
+                        .build(),
+                ImmutableMap.<String, String> builder()
+                        .put("cachePrepStmts", "true")
+                        .put("prepStmtCacheSize", "250")
+                        .put("useServerPrepStmts", "true")
+                        .put("tcpNoDelay", "true")
+                        .build()),
+        POSTGRESQL("postgresql",
+                ImmutableMap.<String, String> builder()
+                        .put("reWriteBatchedInserts", "true")
+                        .put("prepareThreshold", "5")
+                        .put("preparedStatementCacheQueries", "512")
+                        .build(),
+                ImmutableMap.<String, String> builder()
+                        .put("prepareThreshold", "1")
+                        .put("preparedStatementCacheQueries", "512")
+                        .build());
+
+        private final String urlToken;
+        private final Map<String, String> throughput;
+        private final Map<String, String> latency;
+
+        Driver(final String urlToken, final Map<String, String> throughput, final Map<String, String> latency) {
+            this.urlToken = urlToken;
+            this.throughput = throughput;
+            this.latency = latency;
+        }
+    }
+
+    private DriverPropertyPresets() {
+    }
+
+    /**
+     * @param driverClass
+     *            the configured JDBC driver class name, may be {@code null}.
+     * @param url
+     *            the configured JDBC URL, may be {@code null}.
+     * @return the detected driver, or {@code null} if none of the known
+     *         drivers matches.
+     */
+    static Driver detect(final String driverClass, final String url) {
+        final String className = driverClass == null ? "" : driverClass.toLowerCase(Locale.ROOT);
+        final String jdbcUrl = url == null ? "" : url.toLowerCase(Locale.ROOT);
+        for (final Driver driver : Driver.values()) {
+            if (className.contains("." + driver.urlToken + ".")) {
+                return driver;
+            }
+        }
+        for (final Driver driver : Driver.values()) {
+            if (jdbcUrl.startsWith("jdbc:" + driver.urlToken + ":")) {
+                return driver;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the properties the preset applies to the given driver, empty if
+     *         the driver is unknown or the preset is {@code NONE}.
+     */
+    static Map<String, String> get(final Driver driver, final PropertiesPreset preset) {
+        if (driver == null) {
+            return Collections.emptyMap();
+        }
+        switch (preset) {
+        case THROUGHPUT:
+            return driver.throughput;
+        case LATENCY:
+            return driver.latency;
+        default:
+            return Collections.emptyMap();
+        }
+    }
+}
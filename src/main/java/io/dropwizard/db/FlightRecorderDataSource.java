@@ -0,0 +1,191 @@
+package io.dropwizard.db;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Wraps the data source the pool opens its physical connections with, to emit
+ * Java Flight Recorder events when a physical connection is created,
+ * validated or closed. HikariCP validates connections either with
+ * {@link Connection#isValid(int)} or by executing the connection test query on
+ * a plain {@link Statement}, so only those calls are timed; every other call
+ * is forwarded as is. Every physical connection and plain statement is a
+ * dynamic proxy, recording or not, so {@link DataSourceFactory} only installs
+ * this wrapper when {@code physicalConnectionEvents} is enabled.
+ */
+class FlightRecorderDataSource extends DelegatingDataSource {
+    private final String poolName;
+    private final String connectionTestQuery;
+
+    FlightRecorderDataSource(final DataSource delegate, final String poolName, final String connectionTestQuery) {
+        super(delegate);
+        this.poolName = poolName;
+        this.connectionTestQuery = connectionTestQuery;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final ConnectionCreated event = new ConnectionCreated();
+        event.begin();
+        return this.wrap(this.delegate.getConnection(), event);
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final ConnectionCreated event = new ConnectionCreated();
+        event.begin();
+        return this.wrap(this.delegate.getConnection(username, password), event);
+    }
+
+    private Connection wrap(final Connection connection, final ConnectionCreated event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.poolName = this.poolName;
+            event.commit();
+        }
+        return JdbcProxy.create(Connection.class, new ConnectionHandler(connection));
+    }
+
+    private final class ConnectionHandler extends JdbcProxy<Connection> {
+        private final long createdNanos = System.nanoTime();
+
+        private ConnectionHandler(final Connection connection) {
+            super(connection);
+        }
+
+        @Override
+        protected Object handle(final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            final int parameterCount = method.getParameterCount();
+            if ("close".equals(name) && parameterCount == 0) {
+                return this.close(method);
+            } else if ("isValid".equals(name) && parameterCount == 1) {
+                return this.isValid(method, args);
+            } else if ("createStatement".equals(name) && parameterCount == 0) {
+                return JdbcProxy.create(Statement.class, new StatementHandler((Statement) this.forward(method, args)));
+            }
+            return this.forward(method, args);
+        }
+
+        private Object close(final Method method) throws Throwable {
+            final ConnectionClosed event = new ConnectionClosed();
+            if (!event.isEnabled()) {
+                return this.forward(method, null);
+            }
+            event.begin();
+            try {
+                return this.forward(method, null);
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.poolName = FlightRecorderDataSource.this.poolName;
+                    event.lifetime = System.nanoTime() - this.createdNanos;
+                    event.commit();
+                }
+            }
+        }
+
+        private Object isValid(final Method method, final Object[] args) throws Throwable {
+            final ConnectionValidated event = new ConnectionValidated();
+            if (!event.isEnabled()) {
+                return this.forward(method, args);
+            }
+            event.begin();
+            boolean valid = false;
+            try {
+                final Object result = this.forward(method, args);
+                valid = Boolean.TRUE.equals(result);
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.poolName = FlightRecorderDataSource.this.poolName;
+                    event.valid = valid;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    private final class StatementHandler extends JdbcProxy<Statement> {
+        private StatementHandler(final Statement statement) {
+            super(statement);
+        }
+
+        @Override
+        protected Object handle(final Method method, final Object[] args) throws Throwable {
+            if (!"execute".equals(method.getName()) || method.getParameterCount() != 1 || args[0] == null
+                    || !args[0].equals(FlightRecorderDataSource.this.connectionTestQuery)) {
+                return this.forward(method, args);
+            }
+
+            final ConnectionValidated event = new ConnectionValidated();
+            if (!event.isEnabled()) {
+                return this.forward(method, args);
+            }
+            event.begin();
+            boolean valid = false;
+            try {
+                final Object result = this.forward(method, args);
+                valid = true;
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.poolName = FlightRecorderDataSource.this.poolName;
+                    event.valid = valid;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    @Name("io.dropwizard.db.ConnectionCreated")
+    @Label("Connection Created")
+    @Description("The pool opened a physical connection")
+    @Category({ "Dropwizard", "Connection Pool" })
+    @StackTrace(false)
+    static final class ConnectionCreated extends Event {
+        @Label("Pool Name")
+        String poolName;
+    }
+
+    @Name("io.dropwizard.db.ConnectionValidated")
+    @Label("Connection Validated")
+    @Description("The pool checked that a physical connection is alive")
+    @Category({ "Dropwizard", "Connection Pool" })
+    @StackTrace(false)
+    static final class ConnectionValidated extends Event {
+        @Label("Pool Name")
+        String poolName;
+
+        @Label("Valid")
+        boolean valid;
+    }
+
+    @Name("io.dropwizard.db.ConnectionClosed")
+    @Label("Connection Closed")
+    @Description("A physical connection was closed by the pool")
+    @Category({ "Dropwizard", "Connection Pool" })
+    @StackTrace(false)
+    static final class ConnectionClosed extends Event {
+        @Label("Pool Name")
+        String poolName;
+
+        @Label("Lifetime")
+        @Timespan(Timespan.NANOSECONDS)
+        long lifetime;
+    }
+}
@@ -0,0 +1,163 @@
+package io.dropwizard.db;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits Java Flight Recorder events for connections borrowed from the pool.
+ * The events span the wait for a connection and the time it is held, so they
+ * line up with the GC pauses and thread parking recorded at the same time.
+ * When no recording enables them, acquiring a connection only costs the
+ * {@link Event#begin()} and {@link Event#end()} calls, and connections are
+ * only wrapped while {@code ConnectionReleased} is enabled.
+ */
+final class FlightRecorderEvents {
+    private static final boolean AVAILABLE = isFlightRecorderPresent();
+
+    @FunctionalInterface
+    interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return {@code true} if the running JVM ships the {@code jdk.jfr} API
+     *         (JDK 11+ or JDK 8u262+).
+     */
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean isFlightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Borrows a connection, recording the wait and, once the connection is
+     * closed, the hold time. Must only be called if {@link #isAvailable()}.
+     *
+     * @param poolName
+     *            the pool name the events are tagged with.
+     * @param pool
+     *            borrows the connection from the pool.
+     * @return the borrowed connection.
+     * @throws SQLException
+     *             if the pool could not provide a connection.
+     */
+    static Connection acquire(final String poolName, final ConnectionSupplier pool) throws SQLException {
+        // The jdk.jfr types are only referenced from nested classes, which are
+        // not loaded on JVMs without Flight Recorder
+        return Recorder.acquire(poolName, pool);
+    }
+
+    private static final class Recorder {
+        private static Connection acquire(final String poolName, final ConnectionSupplier pool)
+                throws SQLException {
+            final ConnectionAcquired acquired = new ConnectionAcquired();
+            final ConnectionTimeout timeout = new ConnectionTimeout();
+            acquired.begin();
+            timeout.begin();
+            final Connection connection;
+            try {
+                connection = pool.get();
+            } catch (final SQLTransientConnectionException e) {
+                timeout.end();
+                if (timeout.shouldCommit()) {
+                    timeout.poolName = poolName;
+                    timeout.commit();
+                }
+                throw e;
+            }
+            acquired.end();
+            if (acquired.shouldCommit()) {
+                acquired.poolName = poolName;
+                acquired.commit();
+            }
+
+            final ConnectionReleased released = new ConnectionReleased();
+            if (!released.isEnabled()) {
+                return connection;
+            }
+            released.poolName = poolName;
+            released.begin();
+            return JdbcProxy.create(Connection.class, new ReleaseHandler(connection, released));
+        }
+    }
+
+    /**
+     * Ends the {@code ConnectionReleased} event when the borrowed connection is
+     * closed.
+     */
+    private static final class ReleaseHandler extends JdbcProxy<Connection> {
+        private final ConnectionReleased event;
+        private boolean released;
+
+        private ReleaseHandler(final Connection connection, final ConnectionReleased event) {
+            super(connection);
+            this.event = event;
+        }
+
+        @Override
+        protected Object handle(final Method method, final Object[] args) throws Throwable {
+            if (!"close".equals(method.getName()) || method.getParameterCount() != 0) {
+                return this.forward(method, args);
+            }
+            try {
+                return this.forward(method, args);
+            } finally {
+                if (!this.released) {
+                    this.released = true;
+                    this.event.end();
+                    if (this.event.shouldCommit()) {
+                        this.event.commit();
+                    }
+                }
+            }
+        }
+    }
+
+    @Name("io.dropwizard.db.ConnectionAcquired")
+    @Label("Connection Acquired")
+    @Description("A thread waited for a connection from the pool")
+    @Category({ "Dropwizard", "Connection Pool" })
+    @StackTrace(false)
+    static final class ConnectionAcquired extends Event {
+        @Label("Pool Name")
+        String poolName;
+    }
+
+    @Name("io.dropwizard.db.ConnectionReleased")
+    @Label("Connection Released")
+    @Description("A thread held a connection borrowed from the pool")
+    @Category({ "Dropwizard", "Connection Pool" })
+    @StackTrace(false)
+    static final class ConnectionReleased extends Event {
+        @Label("Pool Name")
+        String poolName;
+    }
+
+    @Name("io.dropwizard.db.ConnectionTimeout")
+    @Label("Connection Timeout")
+    @Description("A thread gave up waiting for a connection from the pool")
+    @Category({ "Dropwizard", "Connection Pool" })
+    static final class ConnectionTimeout extends Event {
+        @Label("Pool Name")
+        String poolName;
+    }
+}
@@ -0,0 +1,57 @@
+package io.dropwizard.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Base handler for the dynamic proxies wrapping JDBC objects. Proxies compare
+ * and hash by identity, and exceptions thrown by the wrapped object are
+ * rethrown as is instead of wrapped in an
+ * {@link InvocationTargetException}.
+ *
+ * @param <T>
+ *            the type of the wrapped object.
+ */
+abstract class JdbcProxy<T> implements InvocationHandler {
+    protected final T delegate;
+
+    JdbcProxy(final T delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return a proxy implementing the given interface, calling the handler.
+     */
+    static <T> T create(final Class<T> type, final JdbcProxy<? extends T> handler) {
+        return type.cast(Proxy.newProxyInstance(JdbcProxy.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    @Override
+    public final Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+        if ("equals".equals(name) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        } else if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        return this.handle(method, args);
+    }
+
+    /**
+     * Handles every call but {@code equals} and {@code hashCode}.
+     */
+    protected abstract Object handle(Method method, Object[] args) throws Throwable;
+
+    /**
+     * Calls the method on the wrapped object.
+     */
+    protected final Object forward(final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(this.delegate, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,13 +1,32 @@
 package io.dropwizard.db;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.Timer;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.dropwizard.util.Duration;
 
 public class ManagedPooledDataSource extends HikariDataSource implements ManagedDataSource {
+    private MetricRegistry metricRegistry;
+
+    private Timer recentWait;
+
+    private String recentWaitName;
+
+    private Integer defaultFetchSize;
+
+    private boolean forwardOnlyResultSets;
+
     /**
      * Create a new data source with the given connection pool configuration.
      *
@@ -18,12 +37,105 @@ public class ManagedPooledDataSource extends HikariDataSource implements Managed
      *            metrics.
      */
     public ManagedPooledDataSource(final HikariConfig config, final MetricRegistry metricRegistry) {
+        this(config, metricRegistry, null);
+    }
+
+    /**
+     * Create a new data source with the given connection pool configuration.
+     *
+     * @param config
+     *            the connection pool configuration
+     * @param metricRegistry
+     *            the metric registry used to register the connection pool
+     *            metrics.
+     * @param acquireTimeWindow
+     *            if not {@code null}, the acquire times of this trailing window
+     *            are also kept in the {@code <pool>.pool.RecentWait} timer
+     *            read by {@link PoolAdmissionFilter}.
+     */
+    public ManagedPooledDataSource(final HikariConfig config, final MetricRegistry metricRegistry,
+            final Duration acquireTimeWindow) {
         this(config);
         this.setMetricRegistry(metricRegistry);
+        if (metricRegistry != null && acquireTimeWindow != null) {
+            // HikariCP's Wait timer keeps old samples until new acquisitions
+            // replace them, so it can't tell when the pool has recovered
+            this.metricRegistry = metricRegistry;
+            this.recentWaitName = MetricRegistry.name(this.getPoolName(), "pool", "RecentWait");
+            this.recentWait = metricRegistry.timer(this.recentWaitName, () -> new Timer(
+                    new SlidingTimeWindowArrayReservoir(acquireTimeWindow.toNanoseconds(), TimeUnit.NANOSECONDS)));
+        }
     }
 
     public ManagedPooledDataSource(final HikariConfig config) {
         super(config);
+        if (this.getDataSource() instanceof ThrottledDataSource) {
+            final HikariPoolMXBean pool = this.getHikariPoolMXBean();
+            ((ThrottledDataSource) this.getDataSource()).setPoolState(pool::getTotalConnections,
+                    this.getMinimumIdle());
+        }
+    }
+
+    public Integer getDefaultFetchSize() {
+        return this.defaultFetchSize;
+    }
+
+    /**
+     * Sets the fetch size applied to every statement created from this data
+     * source's connections, {@code null} to keep the driver default.
+     *
+     * @param defaultFetchSize
+     *            the number of rows fetched per round trip.
+     */
+    public void setDefaultFetchSize(final Integer defaultFetchSize) {
+        this.defaultFetchSize = defaultFetchSize;
+    }
+
+    public boolean isForwardOnlyResultSets() {
+        return this.forwardOnlyResultSets;
+    }
+
+    /**
+     * Makes statements created from this data source's connections fail if
+     * they ask for a scrollable or updatable result set. Statements are
+     * forward-only and read-only unless asked otherwise, so this doesn't
+     * change them; it catches code that most drivers can't stream.
+     *
+     * @param forwardOnlyResultSets
+     *            {@code true} to reject requests for scrollable or updatable
+     *            result sets with a {@link SQLFeatureNotSupportedException}.
+     */
+    public void setForwardOnlyResultSets(final boolean forwardOnlyResultSets) {
+        this.forwardOnlyResultSets = forwardOnlyResultSets;
+    }
+
+    /**
+     * Borrows a connection from the pool. The wait is recorded in the
+     * {@code RecentWait} timer, if any, and when the JVM supports Java Flight
+     * Recorder the wait and the hold time are recorded as
+     * {@code io.dropwizard.db.Connection*} events.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        final Connection connection;
+        try {
+            connection = FlightRecorderEvents.isAvailable()
+                    ? FlightRecorderEvents.acquire(this.getPoolName(), super::getConnection)
+                    : super.getConnection();
+        } catch (final SQLTransientConnectionException e) {
+            // Timed out, so the caller waited for the whole connection timeout
+            this.recordWait(start);
+            throw e;
+        }
+        this.recordWait(start);
+        return StatementDefaultsHandler.wrap(connection, this.defaultFetchSize, this.forwardOnlyResultSets);
+    }
+
+    private void recordWait(final long start) {
+        if (this.recentWait != null) {
+            this.recentWait.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     // JDK6 has JDBC 4.0 which doesn't have this -- don't add @Override
@@ -40,4 +152,12 @@ public class ManagedPooledDataSource extends HikariDataSource implements Managed
     public void stop() throws Exception {
         this.close();
     }
+
+    @Override
+    public void close() {
+        super.close();
+        if (this.recentWaitName != null) {
+            this.metricRegistry.remove(this.recentWaitName);
+        }
+    }
 }
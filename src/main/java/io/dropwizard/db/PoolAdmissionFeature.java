@@ -0,0 +1,31 @@
+package io.dropwizard.db;
+
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+
+/**
+ * Installs {@link PoolAdmissionFilter} on resource methods, honouring
+ * {@link AdmissionControlled} annotations.
+ */
+public class PoolAdmissionFeature implements DynamicFeature {
+    private final PoolAdmissionFilter filter;
+    private final boolean annotatedOnly;
+
+    PoolAdmissionFeature(final PoolAdmissionFilter filter, final boolean annotatedOnly) {
+        this.filter = filter;
+        this.annotatedOnly = annotatedOnly;
+    }
+
+    @Override
+    public void configure(final ResourceInfo resourceInfo, final FeatureContext context) {
+        AdmissionControlled annotation = resourceInfo.getResourceMethod().getAnnotation(AdmissionControlled.class);
+        if (annotation == null) {
+            annotation = resourceInfo.getResourceClass().getAnnotation(AdmissionControlled.class);
+        }
+        final boolean controlled = annotation == null ? !this.annotatedOnly : annotation.value();
+        if (controlled) {
+            context.register(this.filter);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.dropwizard.db;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import io.dropwizard.util.Duration;
+
+/**
+ * Rejects requests with {@code 503 Service Unavailable} and a
+ * {@code Retry-After} header while the connection pool is saturated. The pool
+ * state comes from the {@code PendingConnections} gauge HikariCP registers for
+ * the pool and from the {@code RecentWait} timer, which only holds the acquire
+ * times of a sliding window so that shedding stops once the pool drains. The
+ * acquire time percentile is recomputed at most once per refresh interval,
+ * by a single thread, because taking a timer snapshot is too expensive to do
+ * on every request. A threshold whose metric is missing never sheds, and is
+ * logged once.
+ */
+@Priority(Priorities.AUTHENTICATION - 1)
+class PoolAdmissionFilter implements ContainerRequestFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoolAdmissionFilter.class);
+
+    private final MetricRegistry metricRegistry;
+    private final String pendingConnectionsName;
+    private final String waitName;
+    private final Meter shed;
+
+    private final int maxThreadsAwaitingConnection;
+    private final long maxAcquireTimeNanos;
+    private final double acquireTimePercentile;
+    private final long refreshIntervalNanos;
+    private final String retryAfterSeconds;
+
+    private volatile Gauge<?> pendingConnections;
+    private volatile Timer wait;
+    private volatile long acquireTimeNanos;
+    private final AtomicLong nextRefreshNanos = new AtomicLong(System.nanoTime());
+    private final AtomicBoolean missingPendingConnectionsLogged = new AtomicBoolean();
+    private final AtomicBoolean missingWaitLogged = new AtomicBoolean();
+
+    PoolAdmissionFilter(final AdmissionControlFactory factory, final MetricRegistry metricRegistry,
+            final String poolName) {
+        this.metricRegistry = metricRegistry;
+        this.pendingConnectionsName = MetricRegistry.name(poolName, "pool", "PendingConnections");
+        this.waitName = MetricRegistry.name(poolName, "pool", "RecentWait");
+        this.shed = metricRegistry.meter(MetricRegistry.name(poolName, "admission", "Shed"));
+        this.maxThreadsAwaitingConnection = factory.getMaxThreadsAwaitingConnection().orElse(Integer.MAX_VALUE);
+        this.maxAcquireTimeNanos = factory.getMaxAcquireTime()
+                .map(Duration::toNanoseconds)
+                .orElse(Long.MAX_VALUE);
+        this.acquireTimePercentile = factory.getAcquireTimePercentile();
+        this.refreshIntervalNanos = factory.getAcquireTimeRefreshInterval().toNanoseconds();
+        this.retryAfterSeconds = Long.toString(Math.max(1L, (long) Math.ceil(
+                factory.getRetryAfter().toMilliseconds() / (double) TimeUnit.SECONDS.toMillis(1))));
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext requestContext) {
+        if (this.isSaturated()) {
+            this.shed.mark();
+            requestContext.abortWith(Response.status(Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, this.retryAfterSeconds)
+                    .build());
+        }
+    }
+
+    boolean isSaturated() {
+        return this.getThreadsAwaitingConnection() > this.maxThreadsAwaitingConnection
+                || this.getAcquireTimeNanos() > this.maxAcquireTimeNanos;
+    }
+
+    private int getThreadsAwaitingConnection() {
+        if (this.maxThreadsAwaitingConnection == Integer.MAX_VALUE) {
+            return 0;
+        }
+        Gauge<?> gauge = this.pendingConnections;
+        if (gauge == null) {
+            final Metric metric = this.metricRegistry.getMetrics().get(this.pendingConnectionsName);
+            if (!(metric instanceof Gauge)) {
+                logMissingMetric(this.missingPendingConnectionsLogged, this.pendingConnectionsName,
+                        "maxThreadsAwaitingConnection");
+                return 0;
+            }
+            gauge = (Gauge<?>) metric;
+            this.pendingConnections = gauge;
+        }
+        final Object value = gauge.getValue();
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private long getAcquireTimeNanos() {
+        if (this.maxAcquireTimeNanos == Long.MAX_VALUE) {
+            return 0L;
+        }
+        final long now = System.nanoTime();
+        final long nextRefresh = this.nextRefreshNanos.get();
+        // Only the thread that moves the refresh time forward takes the snapshot
+        if (now - nextRefresh < 0
+                || !this.nextRefreshNanos.compareAndSet(nextRefresh, now + this.refreshIntervalNanos)) {
+            return this.acquireTimeNanos;
+        }
+        Timer timer = this.wait;
+        if (timer == null) {
+            final Metric metric = this.metricRegistry.getMetrics().get(this.waitName);
+            if (!(metric instanceof Timer)) {
+                logMissingMetric(this.missingWaitLogged, this.waitName, "maxAcquireTime");
+                return 0L;
+            }
+            timer = (Timer) metric;
+            this.wait = timer;
+        }
+        this.acquireTimeNanos = (long) timer.getSnapshot().getValue(this.acquireTimePercentile);
+        return this.acquireTimeNanos;
+    }
+
+    private static void logMissingMetric(final AtomicBoolean logged, final String metricName,
+            final String threshold) {
+        if (logged.compareAndSet(false, true)) {
+            LOGGER.warn("{} is not registered, so admission control ignores {}. The pool must be built by the "
+                    + "DataSourceFactory holding this admission control, with the same metric registry and name",
+                    metricName, threshold);
+        }
+    }
+}
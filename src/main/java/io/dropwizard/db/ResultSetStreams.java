@@ -0,0 +1,171 @@
+package io.dropwizard.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+/**
+ * Streams rows from a {@link ResultSet} lazily, so that large results are
+ * consumed with a fetch-size bounded memory footprint instead of being
+ * materialized in the heap. The returned streams own their JDBC resources and
+ * must be closed, preferably with try-with-resources.
+ */
+public final class ResultSetStreams {
+    @FunctionalInterface
+    public interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Thrown by the stream when reading or closing the underlying result set
+     * fails.
+     */
+    public static class UncheckedSQLException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public UncheckedSQLException(final SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    private ResultSetStreams() {
+    }
+
+    /**
+     * Runs a query on a connection borrowed from the data source, with a
+     * forward-only read-only cursor, and streams the mapped rows. Auto-commit is
+     * turned off so drivers like PostgreSQL honour the fetch size. Closing the
+     * stream closes the result set and statement, rolls back and turns
+     * auto-commit back on if it was on, and closes the connection.
+     *
+     * @param dataSource
+     *            the data source to borrow the connection from.
+     * @param sql
+     *            the query to run.
+     * @param binder
+     *            binds the query parameters.
+     * @param mapper
+     *            maps the current row, must not advance the result set.
+     * @param <T>
+     *            the row type.
+     * @return the lazily populated stream of rows.
+     * @throws SQLException
+     *             if the query could not be executed.
+     */
+    public static <T> Stream<T> stream(final DataSource dataSource, final String sql, final StatementBinder binder,
+            final RowMapper<T> mapper) throws SQLException {
+        final Connection connection = dataSource.getConnection();
+        AutoCloseable restoreAutoCommit = null;
+        PreparedStatement statement = null;
+        try {
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = () -> {
+                    try {
+                        connection.rollback();
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                };
+            }
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            binder.bind(statement);
+            return stream(statement.executeQuery(), mapper, statement, restoreAutoCommit, connection);
+        } catch (final SQLException | RuntimeException e) {
+            closeQuietly(e, statement, restoreAutoCommit, connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the mapped rows of an already executed result set.
+     *
+     * @param resultSet
+     *            the result set to read.
+     * @param mapper
+     *            maps the current row, must not advance the result set.
+     * @param resources
+     *            additional resources, such as the statement and connection,
+     *            closed in order after the result set when the stream closes.
+     *            {@code null} resources are skipped.
+     * @param <T>
+     *            the row type.
+     * @return the lazily populated stream of rows.
+     */
+    public static <T> Stream<T> stream(final ResultSet resultSet, final RowMapper<T> mapper,
+            final AutoCloseable... resources) {
+        final Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(final Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(resultSet));
+                    return true;
+                } catch (final SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> close(resultSet, resources));
+    }
+
+    private static void close(final ResultSet resultSet, final AutoCloseable... resources) {
+        SQLException failure = null;
+        try {
+            resultSet.close();
+        } catch (final SQLException e) {
+            failure = e;
+        }
+        for (final AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (final Exception e) {
+                if (failure == null) {
+                    failure = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw new UncheckedSQLException(failure);
+        }
+    }
+
+    private static void closeQuietly(final Exception failure, final AutoCloseable... resources) {
+        for (final AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (final Exception e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.dropwizard.db;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+
+/**
+ * Applies the configured statement defaults to every statement created from a
+ * pooled connection: the fetch size and, optionally, a check that no
+ * statement asks for a scrollable or updatable result set. Statements are
+ * forward-only and read-only unless asked otherwise, so the check doesn't
+ * change them; it makes requests that most drivers can't stream fail instead.
+ * Connections are only wrapped when one of the defaults is configured.
+ */
+final class StatementDefaultsHandler extends JdbcProxy<Connection> {
+    private final Integer fetchSize;
+    private final boolean forwardOnly;
+
+    private StatementDefaultsHandler(final Connection delegate, final Integer fetchSize, final boolean forwardOnly) {
+        super(delegate);
+        this.fetchSize = fetchSize;
+        this.forwardOnly = forwardOnly;
+    }
+
+    static Connection wrap(final Connection connection, final Integer fetchSize, final boolean forwardOnly) {
+        if (fetchSize == null && !forwardOnly) {
+            return connection;
+        }
+        return JdbcProxy.create(Connection.class, new StatementDefaultsHandler(connection, fetchSize, forwardOnly));
+    }
+
+    @Override
+    protected Object handle(final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+        final boolean createsStatement = "createStatement".equals(name) || "prepareStatement".equals(name)
+                || "prepareCall".equals(name);
+        if (createsStatement && this.forwardOnly) {
+            checkForwardOnly(method, args);
+        }
+
+        final Object result = this.forward(method, args);
+
+        if (createsStatement && this.fetchSize != null) {
+            final Statement statement = (Statement) result;
+            try {
+                statement.setFetchSize(this.fetchSize);
+            } catch (final SQLException | RuntimeException e) {
+                try {
+                    statement.close();
+                } catch (final SQLException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks the {@code resultSetType} and {@code resultSetConcurrency}
+     * arguments, which always follow the optional SQL string.
+     */
+    private static void checkForwardOnly(final Method method, final Object[] args) throws SQLException {
+        final Class<?>[] parameterTypes = method.getParameterTypes();
+        final int offset = parameterTypes.length > 0 && parameterTypes[0] == String.class ? 1 : 0;
+        if (parameterTypes.length >= offset + 2 && parameterTypes[offset] == int.class
+                && parameterTypes[offset + 1] == int.class
+                && ((Integer) args[offset] != ResultSet.TYPE_FORWARD_ONLY
+                        || (Integer) args[offset + 1] != ResultSet.CONCUR_READ_ONLY)) {
+            throw new SQLFeatureNotSupportedException(
+                    "Scrollable and updatable result sets are disabled by forwardOnlyResultSets");
+        }
+    }
+}
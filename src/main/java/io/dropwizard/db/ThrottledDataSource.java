@@ -0,0 +1,153 @@
+package io.dropwizard.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Opens physical connections through a token bucket, optionally shared with
+ * other pools, adding random jitter to every attempt and an exponential
+ * backoff after failed attempts. The backoff waits at least half of its
+ * current length, plus a random share of the other half.
+ *
+ * The following metrics are registered under the pool name:
+ * <ul>
+ * <li>{@code pool.CreationAttempts}: physical connection attempts.</li>
+ * <li>{@code pool.CreationThrottled}: attempts that had to wait for a
+ * permit.</li>
+ * <li>{@code pool.CreationDelay}: time attempts spent waiting for permits,
+ * jitter and backoff.</li>
+ * <li>{@code pool.RefillTime}: time from the first attempt while the pool is
+ * below its minimum size until the minimum size is reached again.</li>
+ * </ul>
+ */
+class ThrottledDataSource extends DelegatingDataSource {
+    private final RateLimiter limiter;
+    private final RateLimiter groupLimiter;
+    private final long maxJitterNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final Meter attempts;
+    private final Meter throttled;
+    private final Timer delay;
+    private final Timer refillTime;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong refillStartNanos = new AtomicLong();
+
+    private volatile IntSupplier totalConnections;
+    private volatile int minimumSize;
+
+    ThrottledDataSource(final DataSource delegate, final RateLimiter limiter, final RateLimiter groupLimiter,
+            final long maxJitterNanos, final long initialBackoffNanos, final long maxBackoffNanos,
+            final MetricRegistry metricRegistry, final String poolName) {
+        super(delegate);
+        this.limiter = limiter;
+        this.groupLimiter = groupLimiter;
+        this.maxJitterNanos = maxJitterNanos;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.attempts = metricRegistry.meter(MetricRegistry.name(poolName, "pool", "CreationAttempts"));
+        this.throttled = metricRegistry.meter(MetricRegistry.name(poolName, "pool", "CreationThrottled"));
+        this.delay = metricRegistry.timer(MetricRegistry.name(poolName, "pool", "CreationDelay"));
+        this.refillTime = metricRegistry.timer(MetricRegistry.name(poolName, "pool", "RefillTime"));
+    }
+
+    /**
+     * Lets the refill time be measured, once the pool exists.
+     *
+     * @param totalConnections
+     *            supplies the number of connections currently in the pool.
+     * @param minimumSize
+     *            the number of connections the pool refills to.
+     */
+    void setPoolState(final IntSupplier totalConnections, final int minimumSize) {
+        this.minimumSize = minimumSize;
+        this.totalConnections = totalConnections;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        this.beforeAttempt();
+        try {
+            return this.afterSuccess(this.delegate.getConnection());
+        } catch (final SQLException | RuntimeException e) {
+            this.consecutiveFailures.incrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        this.beforeAttempt();
+        try {
+            return this.afterSuccess(this.delegate.getConnection(username, password));
+        } catch (final SQLException | RuntimeException e) {
+            this.consecutiveFailures.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private void beforeAttempt() throws SQLException {
+        this.attempts.mark();
+        final IntSupplier total = this.totalConnections;
+        if (total != null && total.getAsInt() < this.minimumSize) {
+            this.refillStartNanos.compareAndSet(0L, System.nanoTime());
+        }
+
+        final long start = System.nanoTime();
+        boolean wasThrottled = acquire(this.limiter);
+        wasThrottled |= acquire(this.groupLimiter);
+        if (wasThrottled) {
+            this.throttled.mark();
+        }
+
+        long sleepNanos = this.maxJitterNanos > 0 ? ThreadLocalRandom.current().nextLong(this.maxJitterNanos + 1)
+                : 0L;
+        final int failures = this.consecutiveFailures.get();
+        if (failures > 0) {
+            final long backoff = this.initialBackoffNanos << Math.min(failures - 1, 30);
+            final long cappedBackoff = backoff <= 0 ? this.maxBackoffNanos : Math.min(backoff, this.maxBackoffNanos);
+            final long halfBackoff = cappedBackoff / 2;
+            sleepNanos += halfBackoff + ThreadLocalRandom.current().nextLong(cappedBackoff - halfBackoff + 1);
+        }
+        if (sleepNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while throttling connection creation", e);
+            }
+        }
+        this.delay.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean acquire(final RateLimiter limiter) {
+        return limiter != null && !limiter.tryAcquire() && limiter.acquire() > 0;
+    }
+
+    private Connection afterSuccess(final Connection connection) {
+        this.consecutiveFailures.set(0);
+        final IntSupplier total = this.totalConnections;
+        // The pool only counts the connection once this method returns it
+        if (total != null && total.getAsInt() + 1 >= this.minimumSize) {
+            final long start = this.refillStartNanos.getAndSet(0L);
+            if (start != 0L) {
+                this.refillTime.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        return connection;
+    }
+}
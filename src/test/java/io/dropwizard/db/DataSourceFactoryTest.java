@@ -0,0 +1,87 @@
+package io.dropwizard.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.db.DataSourceFactory.PropertiesPreset;
+import io.dropwizard.util.Duration;
+
+public class DataSourceFactoryTest {
+    @Test
+    public void testNoPresetKeepsUserProperties() {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("com.mysql.cj.jdbc.Driver");
+        factory.setUrl("jdbc:mysql://localhost/test");
+        factory.setProperties(Collections.singletonMap("charSet", "UTF-8"));
+
+        assertThat(factory.getEffectiveProperties()).containsOnly(entry("charSet", "UTF-8"));
+    }
+
+    @Test
+    public void testThroughputPresetForMySql() {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("com.mysql.cj.jdbc.Driver");
+        factory.setUrl("jdbc:mysql://localhost/test");
+        factory.setPropertiesPreset(PropertiesPreset.THROUGHPUT);
+
+        assertThat(factory.getEffectiveProperties())
+                .contains(entry("cachePrepStmts", "true"), entry("rewriteBatchedStatements", "true"));
+    }
+
+    @Test
+    public void testPresetDetectsDriverFromUrl() {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("com.example.DelegatingDriver");
+        factory.setUrl("jdbc:postgresql://localhost/test");
+        factory.setPropertiesPreset(PropertiesPreset.THROUGHPUT);
+
+        assertThat(factory.getEffectiveProperties()).contains(entry("reWriteBatchedInserts", "true"));
+    }
+
+    @Test
+    public void testUserPropertiesOverridePreset() {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("org.postgresql.Driver");
+        factory.setUrl("jdbc:postgresql://localhost/test");
+        factory.setPropertiesPreset(PropertiesPreset.LATENCY);
+        factory.setProperties(Collections.singletonMap("prepareThreshold", "3"));
+
+        assertThat(factory.getEffectiveProperties()).contains(entry("prepareThreshold", "3"));
+    }
+
+    @Test
+    public void testUnknownDriverHasNoPreset() {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("org.hsqldb.jdbcDriver");
+        factory.setUrl("jdbc:hsqldb:mem:testdb");
+        factory.setPropertiesPreset(PropertiesPreset.THROUGHPUT);
+
+        assertThat(factory.getEffectiveProperties()).isEmpty();
+    }
+
+    @Test
+    public void testPoolKeepsMetricRegistry() throws Exception {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("org.hsqldb.jdbcDriver");
+        factory.setUrl("jdbc:hsqldb:mem:testdb");
+        factory.setUser("sa");
+        factory.setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+        factory.getAdmissionControl().setMaxAcquireTime(Duration.milliseconds(100));
+        final MetricRegistry metricRegistry = new MetricRegistry();
+
+        final ManagedPooledDataSource dataSource = (ManagedPooledDataSource) factory.build(metricRegistry, "metrics");
+        try {
+            // HikariCP's health checks read the registry back from the pool configuration
+            assertThat(dataSource.getMetricRegistry()).isSameAs(metricRegistry);
+            assertThat(metricRegistry.getTimers()).containsKeys("metrics.pool.Wait", "metrics.pool.RecentWait");
+        } finally {
+            dataSource.stop();
+        }
+    }
+}
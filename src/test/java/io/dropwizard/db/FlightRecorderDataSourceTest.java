@@ -0,0 +1,113 @@
+package io.dropwizard.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderDataSourceTest {
+    private static DataSourceFactory newFactory() {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("org.hsqldb.jdbcDriver");
+        factory.setUrl("jdbc:hsqldb:mem:flightrecorder");
+        factory.setUser("sa");
+        factory.setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+        factory.setMinSize(1);
+        factory.setMaxSize(1);
+        return factory;
+    }
+
+    @Test
+    public void testPhysicalConnectionsAreNotWrappedByDefault() throws Exception {
+        final ManagedPooledDataSource dataSource = (ManagedPooledDataSource) newFactory()
+                .build(new MetricRegistry(), "unwrapped");
+        try {
+            assertThat(dataSource.getDataSource()).isNull();
+        } finally {
+            dataSource.stop();
+        }
+    }
+
+    @Test
+    public void testDriverRejectsNullStatement() throws Exception {
+        final DataSourceFactory factory = newFactory();
+        factory.setPhysicalConnectionEvents(true);
+        final ManagedPooledDataSource dataSource = (ManagedPooledDataSource) factory.build(new MetricRegistry(),
+                "nullstatement");
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            assertThat(dataSource.getDataSource()).isInstanceOf(FlightRecorderDataSource.class);
+            assertThatThrownBy(() -> statement.execute(null)).isInstanceOf(SQLException.class);
+        } finally {
+            dataSource.stop();
+        }
+    }
+
+    @Test
+    public void testCreatedValidatedAndClosedEventsCarryPoolName() throws Exception {
+        final DataSourceFactory factory = newFactory();
+        factory.setPhysicalConnectionEvents(true);
+
+        final Path dump = Files.createTempFile("connection-lifecycle", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("io.dropwizard.db.ConnectionCreated");
+                recording.enable("io.dropwizard.db.ConnectionValidated");
+                recording.enable("io.dropwizard.db.ConnectionClosed");
+                recording.start();
+
+                final ManagedPooledDataSource dataSource = (ManagedPooledDataSource) factory
+                        .build(new MetricRegistry(), "lifecycle");
+                // HikariCP only validates connections that have been idle for more than 500ms
+                Thread.sleep(600L);
+                try (Connection connection = dataSource.getConnection()) {
+                    assertThat(connection.isClosed()).isFalse();
+                }
+                dataSource.stop();
+
+                recording.stop();
+                recording.dump(dump);
+            }
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            final List<RecordedEvent> created = events.stream()
+                    .filter(event -> "io.dropwizard.db.ConnectionCreated".equals(event.getEventType().getName()))
+                    .collect(Collectors.toList());
+            final List<RecordedEvent> validated = events.stream()
+                    .filter(event -> "io.dropwizard.db.ConnectionValidated".equals(event.getEventType().getName()))
+                    .collect(Collectors.toList());
+            final List<RecordedEvent> closed = events.stream()
+                    .filter(event -> "io.dropwizard.db.ConnectionClosed".equals(event.getEventType().getName()))
+                    .collect(Collectors.toList());
+
+            assertThat(created).isNotEmpty().allSatisfy(event -> {
+                assertThat(event.getString("poolName")).isEqualTo("lifecycle");
+                assertThat(event.getDuration()).isPositive();
+            });
+            assertThat(validated).isNotEmpty().allSatisfy(event -> {
+                assertThat(event.getString("poolName")).isEqualTo("lifecycle");
+                assertThat(event.getBoolean("valid")).isTrue();
+            });
+            assertThat(closed).isNotEmpty().allSatisfy(event -> {
+                assertThat(event.getString("poolName")).isEqualTo("lifecycle");
+                assertThat(event.getDuration("lifetime")).isPositive();
+            });
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}
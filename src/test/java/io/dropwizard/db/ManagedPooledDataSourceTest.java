@@ -3,6 +3,9 @@ package io.dropwizard.db;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.net.URI;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -41,6 +44,9 @@ import io.dropwizard.setup.Environment;
 import io.dropwizard.testing.DropwizardTestSupport;
 import io.dropwizard.testing.junit5.DropwizardAppExtension;
 import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -160,4 +166,60 @@ public class ManagedPooledDataSourceTest {
                 .get(TestEntity.class);
         assertThat(createdEntity).isEqualToIgnoringGivenFields(entity, "id");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPoolMetricsAreRegistered() throws Exception {
+        final TestEntity entity = TestEntity.builder()
+                .key("def").build();
+
+        final Response response = this.DROPWIZARD.client()
+                .target(String.format("http://localhost:%d/test", this.DROPWIZARD.getLocalPort()))
+                .request()
+                .post(javax.ws.rs.client.Entity.json(entity));
+        assertThat(response.getStatus()).isEqualTo(Status.CREATED.getStatusCode());
+
+        final MetricRegistry metrics = this.DROPWIZARD.getEnvironment().metrics();
+        assertThat(metrics.getGauges()).containsKey("hibernate.pool.PendingConnections");
+        assertThat(metrics.getTimers()).containsKey("hibernate.pool.Wait");
+        assertThat(metrics.getTimers().get("hibernate.pool.Wait").getCount()).isPositive();
+    }
+
+    @Test
+    public void testFlightRecorderEventsCarryPoolName() throws Exception {
+        final java.nio.file.Path dump = Files.createTempFile("connection-acquired", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("io.dropwizard.db.ConnectionAcquired");
+                recording.enable("io.dropwizard.db.ConnectionReleased");
+                recording.start();
+
+                final Response response = this.DROPWIZARD.client()
+                        .target(String.format("http://localhost:%d/test", this.DROPWIZARD.getLocalPort()))
+                        .request()
+                        .post(javax.ws.rs.client.Entity.json(TestEntity.builder().key("ghi").build()));
+                assertThat(response.getStatus()).isEqualTo(Status.CREATED.getStatusCode());
+
+                recording.stop();
+                recording.dump(dump);
+            }
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            final List<RecordedEvent> acquired = events.stream()
+                    .filter(event -> "io.dropwizard.db.ConnectionAcquired".equals(event.getEventType().getName()))
+                    .collect(Collectors.toList());
+            final List<RecordedEvent> released = events.stream()
+                    .filter(event -> "io.dropwizard.db.ConnectionReleased".equals(event.getEventType().getName()))
+                    .collect(Collectors.toList());
+            assertThat(acquired).isNotEmpty().allSatisfy(event -> {
+                assertThat(event.getString("poolName")).isEqualTo("hibernate");
+                assertThat(event.getDuration()).isGreaterThanOrEqualTo(java.time.Duration.ZERO);
+            });
+            assertThat(released).isNotEmpty().allSatisfy(event -> {
+                assertThat(event.getString("poolName")).isEqualTo("hibernate");
+                assertThat(event.getDuration()).isPositive();
+            });
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.dropwizard.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class PoolAdmissionFeatureTest {
+    public static class PlainResource {
+        public void plain() {
+        }
+
+        @AdmissionControlled(false)
+        public void optedOut() {
+        }
+
+        @AdmissionControlled
+        public void optedIn() {
+        }
+    }
+
+    @AdmissionControlled(false)
+    public static class OptedOutResource {
+        public void inherited() {
+        }
+
+        @AdmissionControlled
+        public void optedIn() {
+        }
+    }
+
+    @AdmissionControlled
+    public static class OptedInResource {
+        public void inherited() {
+        }
+
+        @AdmissionControlled(false)
+        public void optedOut() {
+        }
+    }
+
+    private final PoolAdmissionFilter filter = new PoolAdmissionFilter(new AdmissionControlFactory(),
+            new MetricRegistry(), "test");
+
+    @Test
+    public void testGuardsEverythingButOptedOutResourcesByDefault() throws Exception {
+        final PoolAdmissionFeature feature = new PoolAdmissionFeature(this.filter, false);
+
+        assertThat(this.isGuarded(feature, PlainResource.class, "plain")).isTrue();
+        assertThat(this.isGuarded(feature, PlainResource.class, "optedOut")).isFalse();
+        assertThat(this.isGuarded(feature, OptedOutResource.class, "inherited")).isFalse();
+        assertThat(this.isGuarded(feature, OptedInResource.class, "optedOut")).isFalse();
+    }
+
+    @Test
+    public void testGuardsOnlyOptedInResourcesWhenAnnotatedOnly() throws Exception {
+        final PoolAdmissionFeature feature = new PoolAdmissionFeature(this.filter, true);
+
+        assertThat(this.isGuarded(feature, PlainResource.class, "plain")).isFalse();
+        assertThat(this.isGuarded(feature, PlainResource.class, "optedIn")).isTrue();
+        assertThat(this.isGuarded(feature, OptedInResource.class, "inherited")).isTrue();
+        assertThat(this.isGuarded(feature, OptedInResource.class, "optedOut")).isFalse();
+    }
+
+    @Test
+    public void testMethodAnnotationTakesPrecedenceOverClassAnnotation() throws Exception {
+        final PoolAdmissionFeature feature = new PoolAdmissionFeature(this.filter, false);
+
+        assertThat(this.isGuarded(feature, OptedOutResource.class, "optedIn")).isTrue();
+        assertThat(this.isGuarded(feature, OptedInResource.class, "optedOut")).isFalse();
+    }
+
+    private boolean isGuarded(final PoolAdmissionFeature feature, final Class<?> resourceClass,
+            final String methodName) throws Exception {
+        final Method resourceMethod = resourceClass.getMethod(methodName);
+        final ResourceInfo resourceInfo = (ResourceInfo) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] { ResourceInfo.class },
+                (proxy, method, args) -> "getResourceMethod".equals(method.getName()) ? resourceMethod
+                        : resourceClass);
+        final List<Object> registered = new ArrayList<>();
+        final FeatureContext context = (FeatureContext) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] { FeatureContext.class }, (proxy, method, args) -> {
+                    if ("register".equals(method.getName())) {
+                        registered.add(args[0]);
+                    }
+                    return proxy;
+                });
+
+        feature.configure(resourceInfo, context);
+        return registered.contains(this.filter);
+    }
+}
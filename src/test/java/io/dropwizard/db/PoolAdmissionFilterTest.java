@@ -0,0 +1,196 @@
+package io.dropwizard.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.zaxxer.hikari.HikariConfig;
+
+import io.dropwizard.util.Duration;
+
+public class PoolAdmissionFilterTest {
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final AtomicInteger pendingConnections = new AtomicInteger();
+
+    @Test
+    public void testNoThresholdsNeverSheds() {
+        this.registerPoolMetrics();
+        this.pendingConnections.set(1000);
+        this.metricRegistry.timer("test.pool.RecentWait").update(10, TimeUnit.SECONDS);
+
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(new AdmissionControlFactory(),
+                this.metricRegistry, "test");
+        assertThat(filter.isSaturated()).isFalse();
+    }
+
+    @Test
+    public void testShedsWhenThreadsAwaitingExceedsThreshold() {
+        this.registerPoolMetrics();
+        final AdmissionControlFactory factory = new AdmissionControlFactory();
+        factory.setMaxThreadsAwaitingConnection(5);
+
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(factory, this.metricRegistry, "test");
+        this.pendingConnections.set(5);
+        assertThat(filter.isSaturated()).isFalse();
+        this.pendingConnections.set(6);
+        assertThat(filter.isSaturated()).isTrue();
+    }
+
+    @Test
+    public void testShedsWhenAcquireTimeExceedsThreshold() {
+        this.registerPoolMetrics();
+        final AdmissionControlFactory factory = new AdmissionControlFactory();
+        factory.setMaxAcquireTime(Duration.milliseconds(100));
+
+        this.metricRegistry.timer("test.pool.RecentWait").update(500, TimeUnit.MILLISECONDS);
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(factory, this.metricRegistry, "test");
+        assertThat(filter.isSaturated()).isTrue();
+    }
+
+    @Test
+    public void testSheddingStopsOnceSlowAcquisitionsLeaveTheWindow() throws Exception {
+        final HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.hsqldb.jdbcDriver");
+        config.setJdbcUrl("jdbc:hsqldb:mem:admission");
+        config.setUsername("sa");
+        config.setPoolName("test");
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(250L);
+        final ManagedPooledDataSource dataSource = new ManagedPooledDataSource(config, this.metricRegistry,
+                Duration.seconds(1));
+        final AdmissionControlFactory factory = new AdmissionControlFactory();
+        factory.setMaxAcquireTime(Duration.milliseconds(100));
+        factory.setAcquireTimeRefreshInterval(Duration.milliseconds(1));
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(factory, this.metricRegistry, "test");
+        try {
+            try (Connection held = dataSource.getConnection()) {
+                assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+            }
+            Thread.sleep(5L);
+            assertThat(filter.isSaturated()).isTrue();
+
+            // Every request is shed, so no acquisition is recorded while the window slides past the slow one
+            Thread.sleep(1100L);
+            assertThat(filter.isSaturated()).isFalse();
+        } finally {
+            dataSource.stop();
+        }
+        assertThat(this.metricRegistry.getTimers()).doesNotContainKey("test.pool.RecentWait");
+    }
+
+    @Test
+    public void testOnlyOneThreadRefreshesAcquireTime() throws Exception {
+        final AtomicInteger snapshots = new AtomicInteger();
+        this.metricRegistry.register("test.pool.RecentWait", new Timer() {
+            @Override
+            public Snapshot getSnapshot() {
+                snapshots.incrementAndGet();
+                return super.getSnapshot();
+            }
+        });
+        final AdmissionControlFactory factory = new AdmissionControlFactory();
+        factory.setMaxAcquireTime(Duration.milliseconds(100));
+        factory.setAcquireTimeRefreshInterval(Duration.hours(1));
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(factory, this.metricRegistry, "test");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return filter.isSaturated();
+                }));
+            }
+            start.countDown();
+            for (final Future<Boolean> result : results) {
+                assertThat(result.get()).isFalse();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(snapshots.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMissingPoolMetricsNeverSheds() {
+        final AdmissionControlFactory factory = new AdmissionControlFactory();
+        factory.setMaxThreadsAwaitingConnection(0);
+        factory.setMaxAcquireTime(Duration.milliseconds(1));
+
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(factory, this.metricRegistry, "test");
+        assertThat(filter.isSaturated()).isFalse();
+    }
+
+    @Test
+    public void testFilterAbortsWithServiceUnavailable() {
+        this.registerPoolMetrics();
+        final AdmissionControlFactory factory = new AdmissionControlFactory();
+        factory.setMaxThreadsAwaitingConnection(0);
+        factory.setRetryAfter(Duration.milliseconds(1500));
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(factory, this.metricRegistry, "test");
+        this.pendingConnections.set(1);
+
+        final AtomicReference<Response> aborted = new AtomicReference<>();
+        filter.filter(requestContext(aborted));
+
+        assertThat(aborted.get()).isNotNull();
+        assertThat(aborted.get().getStatus()).isEqualTo(Status.SERVICE_UNAVAILABLE.getStatusCode());
+        assertThat(aborted.get().getHeaderString(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(this.metricRegistry.meter("test.admission.Shed").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFilterLetsRequestsThroughWhenNotSaturated() {
+        this.registerPoolMetrics();
+        final AdmissionControlFactory factory = new AdmissionControlFactory();
+        factory.setMaxThreadsAwaitingConnection(0);
+        final PoolAdmissionFilter filter = new PoolAdmissionFilter(factory, this.metricRegistry, "test");
+
+        final AtomicReference<Response> aborted = new AtomicReference<>();
+        filter.filter(requestContext(aborted));
+
+        assertThat(aborted.get()).isNull();
+        assertThat(this.metricRegistry.meter("test.admission.Shed").getCount()).isZero();
+    }
+
+    private void registerPoolMetrics() {
+        this.metricRegistry.register("test.pool.PendingConnections",
+                (Gauge<Integer>) this.pendingConnections::get);
+        this.metricRegistry.timer("test.pool.RecentWait");
+    }
+
+    private static ContainerRequestContext requestContext(final AtomicReference<Response> aborted) {
+        return (ContainerRequestContext) Proxy.newProxyInstance(PoolAdmissionFilterTest.class.getClassLoader(),
+                new Class<?>[] { ContainerRequestContext.class }, (proxy, method, args) -> {
+                    if ("abortWith".equals(method.getName())) {
+                        aborted.set((Response) args[0]);
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,142 @@
+package io.dropwizard.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class ResultSetStreamsTest {
+    private ManagedPooledDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("org.hsqldb.jdbcDriver");
+        factory.setUrl("jdbc:hsqldb:mem:streams");
+        factory.setUser("sa");
+        factory.setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+        factory.setMinSize(1);
+        factory.setMaxSize(2);
+        factory.setDefaultFetchSize(10);
+        factory.setForwardOnlyResultSets(true);
+        this.dataSource = (ManagedPooledDataSource) factory.build(new MetricRegistry(), "streams");
+
+        try (Connection connection = this.dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE numbers (n INTEGER)");
+            for (int i = 0; i < 100; i++) {
+                statement.execute("INSERT INTO numbers VALUES (" + i + ")");
+            }
+        }
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        try (Connection connection = this.dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE numbers");
+        }
+        this.dataSource.stop();
+    }
+
+    @Test
+    public void testStatementDefaultsAreApplied() throws Exception {
+        try (Connection connection = this.dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            assertThat(statement.getFetchSize()).isEqualTo(10);
+            assertThat(statement.getResultSetType()).isEqualTo(ResultSet.TYPE_FORWARD_ONLY);
+            assertThat(statement.getResultSetConcurrency()).isEqualTo(ResultSet.CONCUR_READ_ONLY);
+        }
+    }
+
+    @Test
+    public void testScrollableResultSetsAreRejected() throws Exception {
+        try (Connection connection = this.dataSource.getConnection()) {
+            assertThatThrownBy(() -> connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE,
+                    ResultSet.CONCUR_READ_ONLY)).isInstanceOf(SQLFeatureNotSupportedException.class);
+            assertThatThrownBy(() -> connection.prepareStatement("SELECT n FROM numbers",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_UPDATABLE))
+                            .isInstanceOf(SQLFeatureNotSupportedException.class);
+            try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                assertThat(statement.getFetchSize()).isEqualTo(10);
+            }
+        }
+    }
+
+    @Test
+    public void testStreamRestoresAutoCommit() throws Exception {
+        try (Connection physical = DriverManager.getConnection("jdbc:hsqldb:mem:streams", "sa", "")) {
+            // Hands out the same connection without resetting it, unlike HikariCP
+            final DataSource unpooled = (DataSource) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                    new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+                        if (!"getConnection".equals(method.getName())) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        return Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                                new Class<?>[] { Connection.class }, (connection, call, callArgs) -> {
+                                    if ("close".equals(call.getName())) {
+                                        return null;
+                                    }
+                                    try {
+                                        return call.invoke(physical, callArgs);
+                                    } catch (final InvocationTargetException e) {
+                                        throw e.getCause();
+                                    }
+                                });
+                    });
+
+            try (Stream<Integer> stream = ResultSetStreams.stream(unpooled, "SELECT n FROM numbers WHERE n < ?",
+                    statement -> statement.setInt(1, 5), resultSet -> resultSet.getInt(1))) {
+                assertThat(physical.getAutoCommit()).isFalse();
+                assertThat(stream.count()).isEqualTo(5);
+            }
+
+            assertThat(physical.getAutoCommit()).isTrue();
+        }
+    }
+
+    @Test
+    public void testStreamReadsAllRowsAndReturnsConnection() throws Exception {
+        final List<Integer> numbers;
+        try (Stream<Integer> stream = ResultSetStreams.stream(this.dataSource,
+                "SELECT n FROM numbers WHERE n >= ? ORDER BY n", statement -> statement.setInt(1, 50),
+                resultSet -> resultSet.getInt(1))) {
+            assertThat(this.dataSource.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+            numbers = stream.collect(Collectors.toList());
+        }
+
+        assertThat(numbers).hasSize(50).startsWith(50, 51).endsWith(99);
+        assertThat(this.dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    @Test
+    public void testStreamAllowsNullRows() throws Exception {
+        final List<String> values;
+        try (Stream<String> stream = ResultSetStreams.stream(this.dataSource,
+                "SELECT CASE WHEN MOD(n, 2) = 0 THEN NULL ELSE CAST(n AS VARCHAR(3)) END FROM numbers "
+                        + "WHERE n < ? ORDER BY n",
+                statement -> statement.setInt(1, 4), resultSet -> resultSet.getString(1))) {
+            values = stream.collect(Collectors.toList());
+        }
+
+        assertThat(values).containsExactly(null, "1", null, "3");
+    }
+}
@@ -0,0 +1,152 @@
+package io.dropwizard.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.util.DriverDataSource;
+
+import io.dropwizard.util.Duration;
+
+public class ThrottledDataSourceTest {
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // Creates the in-memory database up front, so connection attempts are fast enough to hit the rate limit
+        newDriverDataSource().getConnection().close();
+    }
+
+    @Test
+    public void testAttemptsAboveRateAreThrottled() throws Exception {
+        final ConnectionThrottleFactory factory = new ConnectionThrottleFactory();
+        factory.setPermitsPerSecond(2.0);
+        factory.setMaxJitter(Duration.milliseconds(0));
+        final ThrottledDataSource dataSource = factory.build(newDriverDataSource(), this.metricRegistry, "throttle");
+
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+        }
+
+        assertThat(this.metricRegistry.meter("throttle.pool.CreationAttempts").getCount()).isEqualTo(3);
+        assertThat(this.metricRegistry.meter("throttle.pool.CreationThrottled").getCount()).isEqualTo(2);
+        assertThat(this.metricRegistry.timer("throttle.pool.CreationDelay").getCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testGroupLimiterIsSharedAcrossPools() throws Exception {
+        final ConnectionThrottleFactory factory = new ConnectionThrottleFactory();
+        factory.setGroup("shared-test");
+        factory.setGroupPermitsPerSecond(2.0);
+        factory.setMaxJitter(Duration.milliseconds(0));
+        final ThrottledDataSource first = factory.build(newDriverDataSource(), this.metricRegistry, "first");
+        final ThrottledDataSource second = factory.build(newDriverDataSource(), this.metricRegistry, "second");
+
+        first.getConnection().close();
+        second.getConnection().close();
+
+        assertThat(this.metricRegistry.meter("first.pool.CreationThrottled").getCount()).isZero();
+        assertThat(this.metricRegistry.meter("second.pool.CreationThrottled").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBackoffGrowsWithFailuresAndResetsOnSuccess() throws Exception {
+        final AtomicInteger remainingFailures = new AtomicInteger(3);
+        final DriverDataSource driverDataSource = newDriverDataSource();
+        final DataSource failingDataSource = (DataSource) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName()) && remainingFailures.getAndDecrement() > 0) {
+                        throw new SQLException("Connection refused");
+                    }
+                    try {
+                        return method.invoke(driverDataSource, args);
+                    } catch (final InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        final ConnectionThrottleFactory factory = new ConnectionThrottleFactory();
+        factory.setMaxJitter(Duration.milliseconds(0));
+        factory.setInitialBackoff(Duration.milliseconds(100));
+        factory.setMaxBackoff(Duration.seconds(1));
+        final ThrottledDataSource dataSource = factory.build(failingDataSource, this.metricRegistry, "backoff");
+
+        final long[] elapsedMillis = new long[5];
+        for (int i = 0; i < elapsedMillis.length; i++) {
+            final long start = System.nanoTime();
+            try {
+                dataSource.getConnection().close();
+            } catch (final SQLException e) {
+                assertThat(i).isLessThan(3);
+            }
+            elapsedMillis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        // The backoff after n failures waits between half and all of 100ms * 2^(n - 1)
+        assertThat(elapsedMillis[1]).isGreaterThanOrEqualTo(50L);
+        assertThat(elapsedMillis[2]).isGreaterThanOrEqualTo(100L);
+        assertThat(elapsedMillis[3]).isGreaterThanOrEqualTo(200L);
+        assertThat(elapsedMillis[4]).isLessThan(50L);
+        assertThat(this.metricRegistry.timer("backoff.pool.CreationDelay").getCount()).isEqualTo(5);
+        assertThat(this.metricRegistry.timer("backoff.pool.CreationDelay").getSnapshot().getMax())
+                .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void testGroupWithoutRateFailsToBuild() {
+        final ConnectionThrottleFactory factory = new ConnectionThrottleFactory();
+        factory.setGroup("no-rate");
+
+        assertThatThrownBy(() -> factory.build(newDriverDataSource(), this.metricRegistry, "no-rate"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("groupPermitsPerSecond");
+    }
+
+    @Test
+    public void testDataSourceFactoryThrottlesPoolRefill() throws Exception {
+        final DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("org.hsqldb.jdbcDriver");
+        factory.setUrl("jdbc:hsqldb:mem:throttle");
+        factory.setUser("sa");
+        factory.setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+        factory.setMinSize(3);
+        factory.setMaxSize(3);
+        factory.getConnectionThrottle().setPermitsPerSecond(20.0);
+        factory.getConnectionThrottle().setMaxJitter(Duration.milliseconds(0));
+
+        final ManagedPooledDataSource dataSource = (ManagedPooledDataSource) factory.build(this.metricRegistry,
+                "refill");
+        try {
+            assertThat(dataSource.getDataSource()).isInstanceOf(ThrottledDataSource.class);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (dataSource.getHikariPoolMXBean().getTotalConnections() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(10L);
+            }
+
+            assertThat(dataSource.getHikariPoolMXBean().getTotalConnections()).isEqualTo(3);
+            assertThat(this.metricRegistry.meter("refill.pool.CreationAttempts").getCount())
+                    .isGreaterThanOrEqualTo(3);
+            assertThat(this.metricRegistry.timer("refill.pool.RefillTime").getCount()).isEqualTo(1);
+        } finally {
+            dataSource.stop();
+        }
+    }
+
+    private static DriverDataSource newDriverDataSource() {
+        return new DriverDataSource("jdbc:hsqldb:mem:throttle", "org.hsqldb.jdbcDriver", new Properties(), "sa", "");
+    }
+}